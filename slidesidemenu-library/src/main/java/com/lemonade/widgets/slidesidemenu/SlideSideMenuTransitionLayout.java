@@ -1,12 +1,18 @@
 package com.lemonade.widgets.slidesidemenu;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.os.Build;
+import android.support.v4.util.LruCache;
 import android.util.AttributeSet;
+import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.DecelerateInterpolator;
 import android.widget.FrameLayout;
@@ -29,6 +35,7 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
     private static final float DEFAULT_CONTENT_PEEK_SIZE_PERCENT = 0.85f;
     private static final float DEFAULT_MENU_START_SIZE_PERCENT = 1.1f;
     private static final long  DEFAULT_ANIMATION_DURATION = 300;
+    private static final long  DEFAULT_SWAP_DURATION = 200;
 
     private static final long  TOUCH_TAP_DURATION_MAX = 150;
     private static final int   TOUCH_TAP_DISTANCE_MAX_DP = 13;
@@ -82,6 +89,12 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
 
     private int[] mHelpArrayInt2 = new int[2];
 
+    // Layout swapping
+    private long mSwapDuration = DEFAULT_SWAP_DURATION;
+    private ViewSwap mMenuSwap;
+    private ViewSwap mContentSwap;
+    private LruCache<Integer, View> mContentCache;
+
     public interface SlideSideMenuStateListener {
 
         void onSideMenuOpened();
@@ -169,17 +182,32 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
     }
 
     private void syncContentContainerState() {
-        if (mSideMenuAnimation == 0) {
-            mMenuContainer.setVisibility(GONE);
-        } else {
-            mMenuContainer.setVisibility(VISIBLE);
+        int menuVisibility = mSideMenuAnimation == 0 ? GONE : VISIBLE;
+        setVisibilityIfChanged(mMenuContainer, menuVisibility);
+
+        notifyFactorUpdate(mContentContainer);
+        notifyFactorUpdate(mMenuContainer);
+
+        // Views that are being swapped out follow the menu until the swap ends
+        if (mContentSwap != null) {
+            notifyFactorUpdate(mContentSwap.mOldView);
         }
+        if (mMenuSwap != null) {
+            setVisibilityIfChanged(mMenuSwap.mOldView, menuVisibility);
+            notifyFactorUpdate(mMenuSwap.mOldView);
+        }
+    }
 
-        if (mContentContainer instanceof SlideSideMenuUpdateListener) {
-            ((SlideSideMenuUpdateListener) mContentContainer).onSlideSideMenuFactorUpdate(mSideMenuAnimation);
+    private static void setVisibilityIfChanged(View view, int visibility) {
+        // Called on every animation frame, only touch the view when the menu shows up or hides
+        if (view.getVisibility() != visibility) {
+            view.setVisibility(visibility);
         }
-        if (mMenuContainer instanceof SlideSideMenuUpdateListener) {
-            ((SlideSideMenuUpdateListener) mMenuContainer).onSlideSideMenuFactorUpdate(mSideMenuAnimation);
+    }
+
+    private void notifyFactorUpdate(View view) {
+        if (view instanceof SlideSideMenuUpdateListener) {
+            ((SlideSideMenuUpdateListener) view).onSlideSideMenuFactorUpdate(mSideMenuAnimation);
         }
     }
 
@@ -215,6 +243,10 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
     }
 
     public void setMenuLayout(View view) {
+        if (mMenuSwap != null) {
+            mMenuSwap.end();
+        }
+
         if (mMenuContainer != null) {
             removeView(mMenuContainer);
             mMenuContainer = null;
@@ -226,6 +258,10 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
     }
 
     public void setContentLayout(View view) {
+        if (mContentSwap != null) {
+            mContentSwap.end();
+        }
+
         if (mContentContainer != null) {
             removeView(mContentContainer);
             mContentContainer = null;
@@ -236,6 +272,141 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
         mContentContainer = view;
     }
 
+    /**
+     * Replaces the menu in place, cross-fading from the current menu to the given view.
+     * Unlike {@link #setMenuLayout(View)}, the new view takes over the current menu's slot and bounds
+     * and is measured and laid out on its own, so the rest of the hierarchy is not relaid out.
+     * Falls back to {@link #setMenuLayout(View)} if there is no menu yet or this layout was not laid out.
+     * @param view the new menu view
+     */
+    public void swapMenuLayout(View view) {
+        if (mMenuContainer == null || mMenuContainer == view || getWidth() == 0) {
+            if (mMenuContainer != view) {
+                setMenuLayout(view);
+            }
+            return;
+        }
+
+        if (mMenuSwap != null) {
+            mMenuSwap.end();
+        }
+
+        View oldView = mMenuContainer;
+        swapViewInLayout(oldView, view);
+        mMenuContainer = view;
+        setSideMenuAnimation(mSideMenuAnimation);
+
+        mMenuSwap = new ViewSwap(oldView, view);
+        mMenuSwap.start();
+    }
+
+    /**
+     * Replaces the content in place, cross-fading from the current content to the given view.
+     * Unlike {@link #setContentLayout(View)}, the new view takes over the current content's slot and bounds
+     * and is measured and laid out on its own, so the rest of the hierarchy is not relaid out.
+     * Falls back to {@link #setContentLayout(View)} if there is no content yet or this layout was not laid out.
+     * @param view the new content view
+     */
+    public void swapContentLayout(View view) {
+        if (mContentContainer == null || mContentContainer == view || getWidth() == 0) {
+            if (mContentContainer != view) {
+                setContentLayout(view);
+            }
+            return;
+        }
+
+        if (mContentSwap != null) {
+            mContentSwap.end();
+        }
+
+        View oldView = mContentContainer;
+        swapViewInLayout(oldView, view);
+        mContentContainer = view;
+        setSideMenuAnimation(mSideMenuAnimation);
+
+        mContentSwap = new ViewSwap(oldView, view);
+        mContentSwap.start();
+    }
+
+    /**
+     * Swaps the content to the view inflated from the given layout. When the content cache is enabled
+     * (see {@link #setContentCacheSize(int)}) a previously inflated view for this layout is reused, keeping its state.
+     * @param layoutRes the content layout resource, also used as the cache key
+     */
+    public void swapContentLayoutResource(int layoutRes) {
+        View view = mContentCache != null ? mContentCache.get(layoutRes) : null;
+        if (view == null) {
+            view = LayoutInflater.from(getContext()).inflate(layoutRes, this, false);
+            if (mContentCache != null) {
+                mContentCache.put(layoutRes, view);
+            }
+        }
+
+        swapContentLayout(view);
+    }
+
+    /**
+     * Enables a pool of recently used content views for {@link #swapContentLayoutResource(int)}.
+     * The least recently used view is dropped once the pool is full.
+     * @param size maximum number of cached content views, 0 disables the cache
+     */
+    public void setContentCacheSize(int size) {
+        if (size <= 0) {
+            mContentCache = null;
+        } else if (mContentCache == null) {
+            mContentCache = new LruCache<Integer, View>(size);
+        } else {
+            mContentCache.resize(size);
+        }
+    }
+
+    /**
+     * Drops all cached content views
+     */
+    public void clearContentCache() {
+        if (mContentCache != null) {
+            mContentCache.evictAll();
+        }
+    }
+
+    public void setSwapDuration(long duration) {
+        mSwapDuration = duration;
+    }
+
+    private void endSwaps() {
+        if (mMenuSwap != null) {
+            mMenuSwap.end();
+        }
+        if (mContentSwap != null) {
+            mContentSwap.end();
+        }
+    }
+
+    private void swapViewInLayout(View oldView, View newView) {
+        // Same params as addView would use, so a swap ends up laid out like setContentLayout/setMenuLayout
+        ViewGroup.LayoutParams params = newView.getLayoutParams();
+        if (params == null) {
+            params = generateDefaultLayoutParams();
+        } else if (!checkLayoutParams(params)) {
+            params = generateLayoutParams(params);
+        }
+
+        // Set up the new view while it has no parent, so nothing here requests a layout from us
+        newView.setVisibility(oldView.getVisibility());
+        newView.setAlpha(0);
+
+        // Place right above the old view, it's removed once the fade ends
+        addViewInLayout(newView, indexOfChild(oldView) + 1, params, false);
+
+        // Take over the old view's bounds, no need to relayout the whole hierarchy
+        int width = oldView.getWidth();
+        int height = oldView.getHeight();
+        newView.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        newView.layout(oldView.getLeft(), oldView.getTop(), oldView.getLeft() + width, oldView.getTop() + height);
+        invalidate();
+    }
+
     public void setSideMenuStateListener(SlideSideMenuStateListener listener) {
         mSideMenuStateListener = listener;
     }
@@ -327,11 +498,7 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
      * @param factor a value between 0 and 1, where the menu is fully closed at 0 and fully opened at 1.
      */
     public void setSideMenuAnimation(float factor) {
-        if (factor < 0) {
-            factor = 0;
-        } else if (factor > 1) {
-            factor = 1;
-        }
+        factor = clampFactor(factor);
 
         if (mSideMenuAnimation == 0 && factor > 0) {
             // Just starting to show
@@ -343,21 +510,59 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
         mSideMenuAnimation = factor;
 
         // Animate Content
+        applyContentFactor(mContentContainer, factor);
+        if (mContentSwap != null) {
+            applyContentFactor(mContentSwap.mOldView, factor);
+        }
+
+        // Animate Side Menu
+        applyMenuFactor(mMenuContainer, factor);
+        if (mMenuSwap != null) {
+            applyMenuFactor(mMenuSwap.mOldView, factor);
+        }
+
+        syncContentContainerState();
+    }
+
+    private static float clampFactor(float factor) {
+        if (factor < 0) {
+            return 0;
+        } else if (factor > 1) {
+            return 1;
+        }
+        return factor;
+    }
+
+    private void applyContentFactor(View view, float factor) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            mContentContainer.setPivotX(0);
+            view.setPivotX(0);
         }
-        mContentContainer.setTranslationX(mContentContainerTranslationX * factor);
+        view.setTranslationX(mContentContainerTranslationX * factor);
 
         float contentScale = 1 - (mContentContainerScaleDiff * factor);
-        mContentContainer.setScaleY(contentScale);
-        mContentContainer.setScaleX(contentScale);
+        view.setScaleY(contentScale);
+        view.setScaleX(contentScale);
+    }
 
-        // Animate Side Menu
+    private void applyMenuFactor(View view, float factor) {
         float menuScale = 1 + (mMenuContainerScaleDiff * (1-factor));
-        mMenuContainer.setScaleY(menuScale);
-        mMenuContainer.setScaleX(menuScale);
+        view.setScaleY(menuScale);
+        view.setScaleX(menuScale);
+    }
 
-        syncContentContainerState();
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            // Don't let a new gesture reach a view that is being swapped out
+            endSwaps();
+        }
+        return super.dispatchTouchEvent(ev);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        endSwaps();
+        super.onDetachedFromWindow();
     }
 
     @Override
@@ -378,14 +583,15 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
         int actionMasked = ev.getActionMasked();
         switch (actionMasked) {
             case MotionEvent.ACTION_DOWN:
-                mTouchDownTimestamp = System.currentTimeMillis();
+                mTouchDownTimestamp = ev.getEventTime();
                 mTouchDownX = x;
                 mTouchDownY = y;
-                mTouchSwipeValid = (mSideMenuOpen && isViewContains(mContentContainer, (int)x, (int)y, mHelpArrayInt2))
-                                        || mTouchDownX <= mTouchAreaSize;
+                // Resolve the content bounds once per down event
+                boolean openInContent = mSideMenuOpen && inContentContainer(x, y);
+                mTouchSwipeValid = openInContent || mTouchDownX <= mTouchAreaSize;
                 mTouchSwipeActive = false;
                 mTouchFlingActive = false;
-                shouldIntercept = mSideMenuOpen && inContentContainer(x, y);
+                shouldIntercept = openInContent;
                 break;
             case MotionEvent.ACTION_MOVE:
                 if (!mTouchSwipeValid) {
@@ -417,7 +623,7 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
         int actionMasked = event.getActionMasked();
         switch (actionMasked) {
             case MotionEvent.ACTION_DOWN:
-                mTouchDownTimestamp = System.currentTimeMillis();
+                mTouchDownTimestamp = event.getEventTime();
                 mTouchDownX = x;
                 mTouchDownY = y;
                 break;
@@ -437,14 +643,17 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
                 }
 
                 if (mTouchSwipeActive) {
-                    setSideMenuAnimation(getFactorForTouch(x));
-
+                    float factor = clampFactor(getFactorForTouch(x));
+                    // Dragging past the edges keeps the same factor, no need to update the views again
+                    if (factor != mSideMenuAnimation) {
+                        setSideMenuAnimation(factor);
+                    }
                 }
 
                 break;
 
             case MotionEvent.ACTION_UP:
-                long currentTimestamp = System.currentTimeMillis();
+                long currentTimestamp = event.getEventTime();
 
                 // Support fling
                 if (currentTimestamp - mTouchDownTimestamp < mTouchFlingMaxDuration) {
@@ -504,6 +713,59 @@ public class SlideSideMenuTransitionLayout extends FrameLayout {
         return true;
     }
 
+    /**
+     * A single swap between an old and a new view occupying the same slot. The new view (drawn above)
+     * fades in over the old one, which is removed (without a relayout) once the fade ends.
+     */
+    private class ViewSwap extends AnimatorListenerAdapter implements ValueAnimator.AnimatorUpdateListener {
+
+        private final View mOldView;
+        private final View mNewView;
+        private final int mNewViewLayerType;
+        private final ValueAnimator mAnimator;
+
+        ViewSwap(View oldView, View newView) {
+            mOldView = oldView;
+            mNewView = newView;
+            mNewViewLayerType = newView.getLayerType();
+            mAnimator = ValueAnimator.ofFloat(0, 1);
+            mAnimator.setInterpolator(ACCELERATE_DECELERATE);
+            mAnimator.setDuration(mSwapDuration);
+            mAnimator.addUpdateListener(this);
+            mAnimator.addListener(this);
+        }
+
+        void start() {
+            // Fade a layer instead of redrawing the whole section on every frame
+            mNewView.setLayerType(LAYER_TYPE_HARDWARE, null);
+            mAnimator.start();
+        }
+
+        void end() {
+            mAnimator.end();
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            mNewView.setAlpha(animation.getAnimatedFraction());
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            mNewView.setAlpha(1);
+            mNewView.setLayerType(mNewViewLayerType, null);
+            removeViewInLayout(mOldView);
+            invalidate();
+
+            if (mMenuSwap == this) {
+                mMenuSwap = null;
+            }
+            if (mContentSwap == this) {
+                mContentSwap = null;
+            }
+        }
+    }
+
     private float getFactorForTouch(float x) {
         int viewWidth = getWidth();
         float swipeDistance = (mSideMenuOpen ? mTouchDownX - x : x - mTouchDownX) * SWIPE_DISTANCE_FACTOR;
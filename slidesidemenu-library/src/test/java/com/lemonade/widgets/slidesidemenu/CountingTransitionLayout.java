@@ -0,0 +1,62 @@
+package com.lemonade.widgets.slidesidemenu;
+
+import android.content.Context;
+import android.view.View;
+
+/**
+ * A SlideSideMenuTransitionLayout that counts animation frames and state listener calls.
+ * Public, as the menu animator calls {@link #setSideMenuAnimation(float)} through reflection.
+ */
+public class CountingTransitionLayout extends SlideSideMenuTransitionLayout
+        implements SlideSideMenuTransitionLayout.SlideSideMenuStateListener {
+
+    static final int WIDTH = 480;
+    static final int HEIGHT = 800;
+
+    int frames;
+    int openedCalls;
+    int closedCalls;
+    int firstRevealCalls;
+
+    public CountingTransitionLayout(Context context) {
+        super(context);
+        setSideMenuStateListener(this);
+    }
+
+    void reset() {
+        frames = 0;
+        openedCalls = 0;
+        closedCalls = 0;
+        firstRevealCalls = 0;
+    }
+
+    /**
+     * Lays out this layout (and its children) as if it was the root of a {@link #WIDTH}x{@link #HEIGHT} window
+     */
+    void layoutAsRoot() {
+        measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Override
+    public void setSideMenuAnimation(float factor) {
+        frames++;
+        super.setSideMenuAnimation(factor);
+    }
+
+    @Override
+    public void onSideMenuOpened() {
+        openedCalls++;
+    }
+
+    @Override
+    public void onSideMenuClosed() {
+        closedCalls++;
+    }
+
+    @Override
+    public void onSideMenuFirstReveal() {
+        firstRevealCalls++;
+    }
+}
@@ -0,0 +1,82 @@
+package com.lemonade.widgets.slidesidemenu;
+
+import android.content.Context;
+import android.graphics.Paint;
+import android.view.View;
+
+/**
+ * A menu/content child that counts the work the SlideSideMenuTransitionLayout does on it.
+ */
+class CountingView extends View implements SlideSideMenuTransitionLayout.SlideSideMenuUpdateListener {
+
+    int propertySets;
+    int locationOnScreenCalls;
+    int factorUpdates;
+    float lastFactor;
+    int layerType = LAYER_TYPE_NONE;
+
+    CountingView(Context context) {
+        super(context);
+    }
+
+    void reset() {
+        propertySets = 0;
+        locationOnScreenCalls = 0;
+        factorUpdates = 0;
+    }
+
+    @Override
+    public void onSlideSideMenuFactorUpdate(float factor) {
+        factorUpdates++;
+        lastFactor = factor;
+    }
+
+    @Override
+    public void getLocationOnScreen(int[] location) {
+        locationOnScreenCalls++;
+        super.getLocationOnScreen(location);
+    }
+
+    @Override
+    public void setPivotX(float pivotX) {
+        propertySets++;
+        super.setPivotX(pivotX);
+    }
+
+    @Override
+    public void setTranslationX(float translationX) {
+        propertySets++;
+        super.setTranslationX(translationX);
+    }
+
+    @Override
+    public void setScaleX(float scaleX) {
+        propertySets++;
+        super.setScaleX(scaleX);
+    }
+
+    @Override
+    public void setScaleY(float scaleY) {
+        propertySets++;
+        super.setScaleY(scaleY);
+    }
+
+    @Override
+    public void setAlpha(float alpha) {
+        propertySets++;
+        super.setAlpha(alpha);
+    }
+
+    @Override
+    public void setLayerType(int layerType, Paint paint) {
+        // Recorded here, the framework only keeps it when there's a (native) render node
+        this.layerType = layerType;
+        super.setLayerType(layerType, paint);
+    }
+
+    @Override
+    public void setVisibility(int visibility) {
+        propertySets++;
+        super.setVisibility(visibility);
+    }
+}
@@ -0,0 +1,262 @@
+package com.lemonade.widgets.slidesidemenu;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scripts open/close, drag, fling and tap sequences and fails when the hot paths do more work than budgeted.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SlideSideMenuBudgetTest {
+
+    // pivotX, translationX, scaleX, scaleY
+    private static final int CONTENT_PROPERTY_SETS_PER_FRAME = 4;
+    // scaleX, scaleY
+    private static final int MENU_PROPERTY_SETS_PER_FRAME = 2;
+    // The menu visibility changes once when it's revealed or hidden
+    private static final int MENU_VISIBILITY_SETS_PER_TRANSITION = 1;
+    private static final int FACTOR_UPDATES_PER_FRAME = 1;
+    private static final int LOCATION_ON_SCREEN_CALLS_PER_EVENT = 1;
+    private static final int STATE_CALLS_PER_TRANSITION = 1;
+    private static final long ALLOCATED_BYTES_PER_FRAME = 0;
+
+    private static final int ALLOCATION_FRAMES = 1000;
+    private static final int ALLOCATION_RUNS = 5;
+
+    private CountingTransitionLayout mLayout;
+    private CountingView mMenu;
+    private CountingView mContent;
+    private long mDownTime;
+
+    @Before
+    public void setUp() {
+        ShadowLooper.pauseMainLooper();
+
+        Context context = RuntimeEnvironment.application;
+        mLayout = new CountingTransitionLayout(context);
+        mMenu = new CountingView(context);
+        mContent = new CountingView(context);
+        mLayout.setMenuLayout(mMenu);
+        mLayout.setContentLayout(mContent);
+        mLayout.layoutAsRoot();
+        mLayout.setSideMenuAnimation(0);
+
+        reset();
+    }
+
+    @Test
+    public void openAndCloseStayWithinBudgets() {
+        mLayout.openSideMenu();
+        runAnimations();
+
+        assertEquals(1f, mContent.lastFactor, 0);
+        assertTransitionWithinBudgets();
+        assertEquals(STATE_CALLS_PER_TRANSITION, mLayout.openedCalls);
+        assertEquals(STATE_CALLS_PER_TRANSITION, mLayout.firstRevealCalls);
+
+        reset();
+        mLayout.closeSideMenu();
+        runAnimations();
+
+        assertEquals(0f, mContent.lastFactor, 0);
+        assertTransitionWithinBudgets();
+        assertEquals(STATE_CALLS_PER_TRANSITION, mLayout.closedCalls);
+        assertEquals(0, mLayout.firstRevealCalls);
+    }
+
+    @Test
+    public void dragStaysWithinBudgets() {
+        touch(MotionEvent.ACTION_DOWN, 10);
+        assertEquals(0, mContent.locationOnScreenCalls);
+
+        int moves = 0;
+        for (int x = 30; x <= 250; x += 20) {
+            reset();
+            touch(MotionEvent.ACTION_MOVE, x);
+            moves++;
+
+            assertEquals(0, mContent.locationOnScreenCalls);
+            assertTrue(mContent.propertySets <= CONTENT_PROPERTY_SETS_PER_FRAME);
+            assertTrue(mMenu.propertySets <= MENU_PROPERTY_SETS_PER_FRAME + MENU_VISIBILITY_SETS_PER_TRANSITION);
+            assertTrue(mContent.factorUpdates <= FACTOR_UPDATES_PER_FRAME);
+            assertTrue(mMenu.factorUpdates <= FACTOR_UPDATES_PER_FRAME);
+        }
+
+        assertTrue(moves > 0);
+        assertTrue(mContent.lastFactor > 0);
+    }
+
+    @Test
+    public void dragPastTheEdgeDoesNotTouchTheViews() {
+        openFully();
+
+        touch(MotionEvent.ACTION_DOWN, 400);
+        reset();
+
+        // Dragging further open keeps the factor at 1
+        for (int x = 420; x <= 470; x += 10) {
+            touch(MotionEvent.ACTION_MOVE, x);
+        }
+
+        assertEquals(0, mLayout.frames);
+        assertEquals(0, mContent.propertySets);
+        assertEquals(0, mMenu.propertySets);
+        assertEquals(0, mContent.factorUpdates);
+        assertEquals(0, mMenu.factorUpdates);
+    }
+
+    @Test
+    public void flingOpensWithinBudgets() {
+        touch(MotionEvent.ACTION_DOWN, 10);
+        touch(MotionEvent.ACTION_MOVE, 30);
+        touch(MotionEvent.ACTION_UP, 60);
+        runAnimations();
+
+        assertEquals(1f, mContent.lastFactor, 0);
+        assertTransitionWithinBudgets();
+        assertEquals(0, mContent.locationOnScreenCalls);
+        assertEquals(STATE_CALLS_PER_TRANSITION, mLayout.openedCalls);
+        assertEquals(STATE_CALLS_PER_TRANSITION, mLayout.firstRevealCalls);
+    }
+
+    @Test
+    public void tapOnContentClosesWithinBudgets() {
+        openFully();
+
+        touch(MotionEvent.ACTION_DOWN, 400);
+        assertTrue(mContent.locationOnScreenCalls <= LOCATION_ON_SCREEN_CALLS_PER_EVENT);
+
+        mContent.reset();
+        touch(MotionEvent.ACTION_UP, 400);
+        assertTrue(mContent.locationOnScreenCalls <= LOCATION_ON_SCREEN_CALLS_PER_EVENT);
+
+        reset();
+        runAnimations();
+
+        assertEquals(0f, mContent.lastFactor, 0);
+        assertTransitionWithinBudgets();
+    }
+
+    @Test
+    public void frameStaysWithinAllocationBudget() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assertTrue("Allocation counting is not available on this JVM",
+                threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assertTrue("Allocation counting is not available on this JVM",
+                allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        // Stub children keep the framework (and its instrumentation) out of the measurement
+        Context context = RuntimeEnvironment.application;
+        CountingTransitionLayout layout = new CountingTransitionLayout(context);
+        layout.setMenuLayout(new StubView(context));
+        layout.setContentLayout(new StubView(context));
+        layout.layoutAsRoot();
+
+        // Take the best of a few runs, the first one also warms up
+        long bytesPerFrame = Long.MAX_VALUE;
+        for (int run = 0; run < ALLOCATION_RUNS; run++) {
+            long start = allocations.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < ALLOCATION_FRAMES; i++) {
+                // Keep the menu revealed, showing and hiding it is budgeted per transition
+                layout.setSideMenuAnimation((1 + i % 98) / 100f);
+            }
+            long runBytesPerFrame = (allocations.getThreadAllocatedBytes(threadId) - start) / ALLOCATION_FRAMES;
+            bytesPerFrame = Math.min(bytesPerFrame, runBytesPerFrame);
+        }
+
+        assertTrue("Allocated " + bytesPerFrame + " bytes per frame", bytesPerFrame <= ALLOCATED_BYTES_PER_FRAME);
+    }
+
+    private void assertTransitionWithinBudgets() {
+        int frames = mLayout.frames;
+        assertTrue(frames > 0);
+        assertTrue(mContent.propertySets <= frames * CONTENT_PROPERTY_SETS_PER_FRAME);
+        assertTrue(mMenu.propertySets <= frames * MENU_PROPERTY_SETS_PER_FRAME + MENU_VISIBILITY_SETS_PER_TRANSITION);
+        assertTrue(mContent.factorUpdates <= frames * FACTOR_UPDATES_PER_FRAME);
+        assertTrue(mMenu.factorUpdates <= frames * FACTOR_UPDATES_PER_FRAME);
+        assertTrue(mLayout.openedCalls + mLayout.closedCalls <= STATE_CALLS_PER_TRANSITION);
+        assertTrue(mLayout.firstRevealCalls <= STATE_CALLS_PER_TRANSITION);
+    }
+
+    private void openFully() {
+        mLayout.openSideMenu();
+        runAnimations();
+        reset();
+    }
+
+    private void runAnimations() {
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    private void reset() {
+        mLayout.reset();
+        mMenu.reset();
+        mContent.reset();
+    }
+
+    private void touch(int action, float x) {
+        // The layout times taps and flings by the event time, which follows the paused clock
+        long now = SystemClock.uptimeMillis();
+        if (action == MotionEvent.ACTION_DOWN) {
+            mDownTime = now;
+        }
+
+        MotionEvent event = MotionEvent.obtain(mDownTime, now, action, x, CountingTransitionLayout.HEIGHT / 2, 0);
+        mLayout.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * A child that only counts property sets, without passing them on to the framework
+     */
+    private static class StubView extends CountingView {
+
+        StubView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void setPivotX(float pivotX) {
+            propertySets++;
+        }
+
+        @Override
+        public void setTranslationX(float translationX) {
+            propertySets++;
+        }
+
+        @Override
+        public void setScaleX(float scaleX) {
+            propertySets++;
+        }
+
+        @Override
+        public void setScaleY(float scaleY) {
+            propertySets++;
+        }
+
+        @Override
+        public void setVisibility(int visibility) {
+            propertySets++;
+        }
+    }
+}
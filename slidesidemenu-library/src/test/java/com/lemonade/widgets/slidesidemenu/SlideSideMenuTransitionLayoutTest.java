@@ -0,0 +1,277 @@
+package com.lemonade.widgets.slidesidemenu;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.Gravity;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Covers swapping the menu/content in place and the content cache.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SlideSideMenuTransitionLayoutTest {
+
+    private static final int SECTION_1 = android.R.layout.simple_list_item_1;
+    private static final int SECTION_2 = android.R.layout.simple_list_item_2;
+    private static final int SECTION_3 = android.R.layout.simple_list_item_checked;
+
+    private Context mContext;
+    private CountingTransitionLayout mLayout;
+    private CountingView mMenu;
+    private CountingView mContent;
+
+    @Before
+    public void setUp() {
+        ShadowLooper.pauseMainLooper();
+
+        mContext = RuntimeEnvironment.application;
+        mLayout = new CountingTransitionLayout(mContext);
+        mMenu = new CountingView(mContext);
+        mContent = new CountingView(mContext);
+        mLayout.setMenuLayout(mMenu);
+        mLayout.setContentLayout(mContent);
+        mLayout.setSideMenuAnimation(0);
+        mLayout.layoutAsRoot();
+    }
+
+    @Test
+    public void swapContentFadesInOverTheOldContent() {
+        CountingView section = new CountingView(mContext);
+        mLayout.swapContentLayout(section);
+
+        assertEquals(3, mLayout.getChildCount());
+        assertEquals(mLayout.indexOfChild(mContent) + 1, mLayout.indexOfChild(section));
+        assertEquals(1f, mContent.getAlpha(), 0);
+        assertEquals(0f, section.getAlpha(), 0);
+        assertEquals(View.LAYER_TYPE_HARDWARE, section.layerType);
+        assertEquals(mContent.getLeft(), section.getLeft());
+        assertEquals(mContent.getTop(), section.getTop());
+        assertEquals(mContent.getWidth(), section.getWidth());
+        assertEquals(mContent.getHeight(), section.getHeight());
+
+        runAnimations();
+
+        assertEquals(2, mLayout.getChildCount());
+        assertNull(mContent.getParent());
+        assertSame(mLayout, section.getParent());
+        assertEquals(1f, section.getAlpha(), 0);
+        assertEquals(View.LAYER_TYPE_NONE, section.layerType);
+    }
+
+    @Test
+    public void swapDoesNotRelayout() {
+        mLayout.swapContentLayout(new CountingView(mContext));
+        mLayout.swapMenuLayout(new CountingView(mContext));
+        assertFalse(mLayout.isLayoutRequested());
+
+        runAnimations();
+        assertFalse(mLayout.isLayoutRequested());
+    }
+
+    @Test
+    public void swapContentUsesTheSameParamsAsSetContentLayout() {
+        FrameLayout.LayoutParams contentParams = (FrameLayout.LayoutParams) mContent.getLayoutParams();
+        contentParams.setMargins(1, 2, 3, 4);
+        contentParams.gravity = Gravity.BOTTOM;
+
+        CountingView section = new CountingView(mContext);
+        mLayout.swapContentLayout(section);
+
+        FrameLayout.LayoutParams sectionParams = (FrameLayout.LayoutParams) section.getLayoutParams();
+        assertNotSame(contentParams, sectionParams);
+        assertEquals(FrameLayout.LayoutParams.MATCH_PARENT, sectionParams.width);
+        assertEquals(FrameLayout.LayoutParams.MATCH_PARENT, sectionParams.height);
+        assertEquals(0, sectionParams.leftMargin);
+        assertEquals(0, sectionParams.topMargin);
+        assertEquals(0, sectionParams.rightMargin);
+        assertEquals(0, sectionParams.bottomMargin);
+        assertEquals(new FrameLayout.LayoutParams(0, 0).gravity, sectionParams.gravity);
+        assertEquals(1, contentParams.leftMargin);
+        assertEquals(Gravity.BOTTOM, contentParams.gravity);
+    }
+
+    @Test
+    public void swapContentKeepsTheNewViewParams() {
+        CountingView section = new CountingView(mContext);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(100, 200, Gravity.END);
+        params.setMargins(1, 2, 3, 4);
+        section.setLayoutParams(params);
+
+        mLayout.swapContentLayout(section);
+
+        assertSame(params, section.getLayoutParams());
+        assertEquals(Gravity.END, params.gravity);
+        assertEquals(4, params.bottomMargin);
+    }
+
+    @Test
+    public void swapContentBeforeLayoutFallsBackToSetContentLayout() {
+        SlideSideMenuTransitionLayout layout = new SlideSideMenuTransitionLayout(mContext);
+        CountingView content = new CountingView(mContext);
+        layout.setMenuLayout(new CountingView(mContext));
+        layout.setContentLayout(content);
+
+        CountingView section = new CountingView(mContext);
+        layout.swapContentLayout(section);
+
+        assertEquals(2, layout.getChildCount());
+        assertNull(content.getParent());
+        assertSame(layout, section.getParent());
+        assertEquals(1f, section.getAlpha(), 0);
+    }
+
+    @Test
+    public void swapBackToFadingOutContentEndsTheSwapFirst() {
+        CountingView section = new CountingView(mContext);
+        mLayout.swapContentLayout(section);
+        mLayout.swapContentLayout(mContent);
+
+        assertEquals(3, mLayout.getChildCount());
+        assertEquals(mLayout.indexOfChild(section) + 1, mLayout.indexOfChild(mContent));
+
+        runAnimations();
+
+        assertEquals(2, mLayout.getChildCount());
+        assertNull(section.getParent());
+        assertSame(mLayout, mContent.getParent());
+        assertEquals(1f, mContent.getAlpha(), 0);
+    }
+
+    @Test
+    public void swappedOutContentFollowsTheMenu() {
+        CountingView section = new CountingView(mContext);
+        mLayout.swapContentLayout(section);
+        mLayout.setSideMenuAnimation(0.5f);
+
+        assertEquals(0.5f, mContent.lastFactor, 0);
+        assertEquals(0.5f, section.lastFactor, 0);
+        assertEquals(section.getTranslationX(), mContent.getTranslationX(), 0);
+        assertEquals(section.getScaleX(), mContent.getScaleX(), 0);
+    }
+
+    @Test
+    public void swappedOutMenuFollowsTheMenuVisibility() {
+        CountingView menu = new CountingView(mContext);
+        mLayout.swapMenuLayout(menu);
+        assertEquals(View.GONE, mMenu.getVisibility());
+        assertEquals(View.GONE, menu.getVisibility());
+
+        mLayout.setSideMenuAnimation(0.5f);
+
+        assertEquals(View.VISIBLE, mMenu.getVisibility());
+        assertEquals(View.VISIBLE, menu.getVisibility());
+        assertEquals(0.5f, mMenu.lastFactor, 0);
+    }
+
+    @Test
+    public void touchDownEndsTheSwap() {
+        CountingView section = new CountingView(mContext);
+        mLayout.swapContentLayout(section);
+
+        long now = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 200, 200, 0);
+        mLayout.dispatchTouchEvent(event);
+        event.recycle();
+
+        assertNull(mContent.getParent());
+        assertEquals(1f, section.getAlpha(), 0);
+    }
+
+    @Test
+    public void detachEndsTheSwap() {
+        Activity activity = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+        activity.setContentView(mLayout);
+        // The window attaches its views on the first traversal
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(mLayout.isAttachedToWindow());
+        mLayout.layoutAsRoot();
+
+        CountingView section = new CountingView(mContext);
+        mLayout.swapContentLayout(section);
+        assertSame(mLayout, mContent.getParent());
+
+        ((ViewGroup) mLayout.getParent()).removeView(mLayout);
+
+        assertNull(mContent.getParent());
+        assertEquals(1f, section.getAlpha(), 0);
+    }
+
+    @Test
+    public void cachedContentIsReused() {
+        mLayout.setContentCacheSize(3);
+
+        View section1 = swapTo(SECTION_1);
+        View section2 = swapTo(SECTION_2);
+
+        assertNotSame(section1, section2);
+        assertSame(section1, swapTo(SECTION_1));
+        assertSame(section2, swapTo(SECTION_2));
+    }
+
+    @Test
+    public void evictedContentIsInflatedAgain() {
+        mLayout.setContentCacheSize(2);
+
+        View section1 = swapTo(SECTION_1);
+        swapTo(SECTION_2);
+        View section3 = swapTo(SECTION_3);
+
+        assertNotSame(section1, swapTo(SECTION_1));
+        assertSame(section3, swapTo(SECTION_3));
+    }
+
+    @Test
+    public void resizeKeepsTheMostRecentlyUsedContent() {
+        mLayout.setContentCacheSize(3);
+
+        View section1 = swapTo(SECTION_1);
+        View section2 = swapTo(SECTION_2);
+        swapTo(SECTION_3);
+        mLayout.setContentCacheSize(1);
+
+        assertNotSame(section2, swapTo(SECTION_2));
+        assertNotSame(section1, swapTo(SECTION_1));
+    }
+
+    @Test
+    public void disabledCacheInflatesEveryTime() {
+        mLayout.setContentCacheSize(2);
+        mLayout.setContentCacheSize(0);
+
+        View section1 = swapTo(SECTION_1);
+        swapTo(SECTION_2);
+
+        assertNotSame(section1, swapTo(SECTION_1));
+    }
+
+    private View swapTo(int layoutRes) {
+        mLayout.swapContentLayoutResource(layoutRes);
+        runAnimations();
+        return mLayout.getChildAt(mLayout.getChildCount() - 1);
+    }
+
+    private void runAnimations() {
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+}